@@ -5,6 +5,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.os.CountDownTimer;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.widget.Button;
 import android.widget.TextView;
@@ -15,6 +16,7 @@ import android.widget.TextView;
  */
 public class PrayerOverlayActivity extends Activity {
     private TextView titleText;
+    private TextView prayerNameText;
     private TextView timerText;
     private TextView messageText;
     private Button beginButton;
@@ -23,12 +25,17 @@ public class PrayerOverlayActivity extends Activity {
     private String prayerName;
     private int duration; // in minutes
     private String scheduleId;
+    private int traceId;
     private CountDownTimer countDownTimer;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        Intent intent = getIntent();
+        traceId = intent.getIntExtra(PrayerTrace.EXTRA_TRACE_ID, PrayerTrace.NO_TRACE_ID);
+        long onCreateStart = PrayerTrace.beginSection("PrayerOverlayActivity.onCreate");
+
         // Make full-screen and show over lock screen
         getWindow().addFlags(
             WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED |
@@ -38,14 +45,62 @@ public class PrayerOverlayActivity extends Activity {
         );
 
         // Get intent data
-        Intent intent = getIntent();
         prayerName = intent.getStringExtra("prayerName");
         duration = intent.getIntExtra("duration", 5);
         scheduleId = intent.getStringExtra("scheduleId");
 
         // For now, use a simple layout
         // In production, you'd want a proper XML layout matching your design
+        long layoutStart = PrayerTrace.beginSection("PrayerOverlayActivity.createLayout");
         createSimpleLayout();
+        PrayerTrace.endSection("PrayerOverlayActivity.createLayout", traceId, layoutStart);
+
+        traceFirstDraw();
+        PrayerTrace.endSection("PrayerOverlayActivity.onCreate", traceId, onCreateStart);
+    }
+
+    /**
+     * A new trigger arrived while the overlay is already showing (singleTop)
+     * Adopt its prayer and trace id, so later sections belong to it, and redraw for it
+     */
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+
+        traceId = intent.getIntExtra(PrayerTrace.EXTRA_TRACE_ID, PrayerTrace.NO_TRACE_ID);
+        prayerName = intent.getStringExtra("prayerName");
+        duration = intent.getIntExtra("duration", 5);
+        scheduleId = intent.getStringExtra("scheduleId");
+
+        prayerNameText.setText(prayerName != null ? prayerName : "Prayer Time");
+        if (countDownTimer != null) {
+            countDownTimer.cancel();
+        }
+        timerText.setText(String.format("%d:00", duration));
+        startCountdown();
+
+        traceFirstDraw();
+    }
+
+    /**
+     * End the trigger's async slice when the overlay is about to draw its first frame
+     */
+    private void traceFirstDraw() {
+        final int drawTraceId = traceId;
+        if (drawTraceId == PrayerTrace.NO_TRACE_ID) {
+            return;
+        }
+
+        final View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                PrayerTrace.endTrigger(drawTraceId);
+                return true;
+            }
+        });
     }
 
     /**
@@ -75,7 +130,7 @@ public class PrayerOverlayActivity extends Activity {
         layout.addView(titleText, titleParams);
 
         // Prayer name
-        TextView prayerNameText = new TextView(this);
+        prayerNameText = new TextView(this);
         prayerNameText.setText(prayerName != null ? prayerName : "Prayer Time");
         prayerNameText.setTextSize(24);
         prayerNameText.setTextColor(0xFFFFFFFF);
@@ -186,26 +241,71 @@ public class PrayerOverlayActivity extends Activity {
      */
     private void handleBeginPrayer() {
         // Notify React Native that prayer was started
-        PrayerOverlayModule.notifyPrayerCompleted(scheduleId);
+        // If JS isn't running, queue the session so the service uploads it later
+        long notifyStart = PrayerTrace.beginSection("PrayerOverlayModule.notifyPrayerCompleted");
+        boolean delivered = PrayerOverlayModule.notifyPrayerCompleted(scheduleId, traceId);
+        PrayerTrace.endSection("PrayerOverlayModule.notifyPrayerCompleted", traceId, notifyStart);
+
+        if (!delivered) {
+            queueSessionResult();
+
+            // No React instance yet, so opening the app is a cold start; the module ends this slice
+            PrayerTrace.beginColdStart(traceId);
+        }
 
         // Open main app to prayer session
-        openMainApp();
+        long openStart = PrayerTrace.beginSection("PrayerOverlayActivity.openMainApp");
+        boolean launched = openMainApp();
+        PrayerTrace.endSection("PrayerOverlayActivity.openMainApp", traceId, openStart);
+        if (!launched) {
+            PrayerTrace.cancelColdStart(traceId, "launch_failed");
+        }
         finish();
     }
 
+    /**
+     * Queue the completed session on disk for the service to upload
+     * Runs off the UI thread so the file write doesn't delay opening the app
+     */
+    private void queueSessionResult() {
+        final PrayerScheduleSyncClient client = PrayerSyncConfig.createClient(this);
+        final String queuedScheduleId = scheduleId;
+        final int queuedDuration = duration;
+        final int queuedTraceId = traceId;
+        final long now = System.currentTimeMillis();
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long start = PrayerTrace.beginSection("PrayerOverlayActivity.queueSessionResult");
+                client.queueSessionResult(
+                    queuedScheduleId,
+                    now - queuedDuration * 60 * 1000L,
+                    now,
+                    queuedDuration,
+                    true
+                );
+                PrayerTrace.endSection("PrayerOverlayActivity.queueSessionResult", queuedTraceId, start);
+            }
+        }, "PrayerSessionQueue").start();
+    }
+
     /**
      * Handle dismiss button
      */
     private void handleDismiss() {
         // Notify React Native that prayer was dismissed
-        PrayerOverlayModule.notifyPrayerDismissed(scheduleId);
+        long notifyStart = PrayerTrace.beginSection("PrayerOverlayModule.notifyPrayerDismissed");
+        PrayerOverlayModule.notifyPrayerDismissed(scheduleId, traceId);
+        PrayerTrace.endSection("PrayerOverlayModule.notifyPrayerDismissed", traceId, notifyStart);
         finish();
     }
 
     /**
      * Open main app
+     * Returns false if the launch intent was missing or failed to start
      */
-    private void openMainApp() {
+    private boolean openMainApp() {
         try {
             Intent launchIntent = getPackageManager()
                 .getLaunchIntentForPackage(getPackageName());
@@ -213,10 +313,12 @@ public class PrayerOverlayActivity extends Activity {
                 launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
                 launchIntent.setData(android.net.Uri.parse("sacred://prayer-session"));
                 startActivity(launchIntent);
+                return true;
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return false;
     }
 
     @Override
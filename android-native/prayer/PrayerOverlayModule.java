@@ -18,6 +18,12 @@ import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * React Native module for Prayer Overlay functionality
  * Provides methods to show full-screen prayer lock screen and manage prayer monitoring
@@ -29,6 +35,9 @@ public class PrayerOverlayModule extends ReactContextBaseJavaModule {
     public PrayerOverlayModule(ReactApplicationContext context) {
         super(context);
         reactContext = context;
+
+        // A new React instance is up; closes the slice if the overlay cold-started the app
+        PrayerTrace.endColdStart();
     }
 
     @NonNull
@@ -87,14 +96,22 @@ public class PrayerOverlayModule extends ReactContextBaseJavaModule {
 
     /**
      * Show prayer overlay immediately
+     * Resolves with the trigger's trace id, for exportPrayerTrace
      */
     @ReactMethod
     public void showPrayerOverlay(ReadableMap data, Promise promise) {
+        int traceId = PrayerTrace.NO_TRACE_ID;
         try {
             String prayerName = data.hasKey("name") ? data.getString("name") : "Prayer Time";
             int duration = data.hasKey("duration") ? data.getInt("duration") : 5;
             String scheduleId = data.hasKey("scheduleId") ? data.getString("scheduleId") : "";
 
+            JSONObject traceArgs = new JSONObject();
+            traceArgs.put("scheduleId", scheduleId);
+            traceArgs.put("source", "js");
+            traceId = PrayerTrace.newTraceId();
+            PrayerTrace.beginTrigger(traceId, traceArgs);
+
             Intent intent = new Intent(reactContext, PrayerOverlayActivity.class);
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
                           Intent.FLAG_ACTIVITY_CLEAR_TOP |
@@ -102,10 +119,17 @@ public class PrayerOverlayModule extends ReactContextBaseJavaModule {
             intent.putExtra("prayerName", prayerName);
             intent.putExtra("duration", duration);
             intent.putExtra("scheduleId", scheduleId);
+            intent.putExtra(PrayerTrace.EXTRA_TRACE_ID, traceId);
 
-            reactContext.startActivity(intent);
-            promise.resolve(true);
+            long start = PrayerTrace.beginSection("PrayerOverlayModule.startActivity");
+            try {
+                reactContext.startActivity(intent);
+            } finally {
+                PrayerTrace.endSection("PrayerOverlayModule.startActivity", traceId, start);
+            }
+            promise.resolve(traceId);
         } catch (Exception e) {
+            PrayerTrace.cancelTrigger(traceId, "launch_failed");
             promise.reject("ERROR", "Failed to show prayer overlay", e);
         }
     }
@@ -170,32 +194,126 @@ public class PrayerOverlayModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Save Supabase credentials so the service can sync the schedule without JS
+     */
+    @ReactMethod
+    public void configureNativeSync(ReadableMap config, Promise promise) {
+        try {
+            PrayerSyncConfig.save(
+                reactContext,
+                config.getString("supabaseUrl"),
+                config.getString("supabaseAnonKey"),
+                config.getString("accessToken"),
+                config.getString("userId")
+            );
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to configure native sync", e);
+        }
+    }
+
+    /**
+     * Clear native sync credentials and cached schedule
+     */
+    @ReactMethod
+    public void clearNativeSync(Promise promise) {
+        try {
+            PrayerSyncConfig.clear(reactContext);
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to clear native sync", e);
+        }
+    }
+
+    /**
+     * Queue a session that JS couldn't save (e.g. offline) for the service to upload
+     * Pass sessionId when the session row was inserted and only the stats update failed
+     */
+    @ReactMethod
+    public void queuePrayerSession(ReadableMap session, Promise promise) {
+        try {
+            PrayerScheduleSyncClient client = PrayerSyncConfig.createClient(reactContext);
+            boolean queued = client.queueSessionResult(
+                session.hasKey("sessionId") ? session.getString("sessionId") : null,
+                session.getString("scheduleId"),
+                (long) session.getDouble("startedAt"),
+                (long) session.getDouble("completedAt"),
+                session.getInt("duration"),
+                true
+            );
+            promise.resolve(queued);
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to queue prayer session", e);
+        }
+    }
+
+    /**
+     * Export the recorded trigger-to-prayer timeline as Chrome trace event JSON
+     * Pass 0 for every trigger still in the buffer, or a trace id for a single trigger
+     * Resolves with the file path (openable in Perfetto UI) and the JSON itself
+     * Each export overwrites the same file, so exports don't pile up in the cache dir
+     */
+    @ReactMethod
+    public void exportPrayerTrace(int traceId, Promise promise) {
+        try {
+            String json = PrayerTrace.exportJson(traceId);
+
+            File file = new File(reactContext.getCacheDir(), "prayer-trace.json");
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putString("path", file.getAbsolutePath());
+            result.putString("json", json);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", "Failed to export prayer trace", e);
+        }
+    }
+
+    /**
+     * Drop all recorded trace events
+     */
+    @ReactMethod
+    public void clearPrayerTrace(Promise promise) {
+        PrayerTrace.clear();
+        promise.resolve(true);
+    }
+
     /**
      * Send event to JavaScript
+     * Returns false if no React instance is running to receive it
      */
-    public static void sendEvent(String eventName, @Nullable WritableMap params) {
-        if (reactContext != null) {
+    public static boolean sendEvent(String eventName, @Nullable WritableMap params) {
+        if (reactContext != null && reactContext.hasActiveReactInstance()) {
             reactContext
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
                 .emit(eventName, params);
+            return true;
         }
+        return false;
     }
 
     /**
      * Notify JS that prayer was completed
+     * Returns false if JS isn't running and the session must be saved natively
      */
-    public static void notifyPrayerCompleted(String scheduleId) {
+    public static boolean notifyPrayerCompleted(String scheduleId, int traceId) {
         WritableMap params = Arguments.createMap();
         params.putString("scheduleId", scheduleId);
-        sendEvent("onPrayerCompleted", params);
+        params.putInt("traceId", traceId);
+        return sendEvent("onPrayerCompleted", params);
     }
 
     /**
      * Notify JS that prayer was dismissed
      */
-    public static void notifyPrayerDismissed(String scheduleId) {
+    public static void notifyPrayerDismissed(String scheduleId, int traceId) {
         WritableMap params = Arguments.createMap();
         params.putString("scheduleId", scheduleId);
+        params.putInt("traceId", traceId);
         sendEvent("onPrayerDismissed", params);
     }
 }
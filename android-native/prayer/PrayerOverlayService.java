@@ -18,18 +18,28 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Foreground Service that monitors prayer times
  * Runs continuously and shows prayer overlay at scheduled times
+ *
+ * Schedule sync and session upload use the Supabase access token JS last pushed. The service
+ * can't refresh it: Supabase rotates refresh tokens, so a native refresh would sign JS out.
+ * Access tokens last about an hour, so without JS the service usually runs from the cached
+ * schedule and keeps sessions queued until the app is opened and pushes a fresh token.
  */
 public class PrayerOverlayService extends Service {
     private static final String CHANNEL_ID = "PrayerMonitoringChannel";
     private static final int NOTIFICATION_ID = 1000;
     private static final int CHECK_INTERVAL = 30000; // Check every 30 seconds
+    private static final int SYNC_INTERVAL = 15 * 60 * 1000; // Sync with Supabase every 15 minutes
 
     private Handler handler;
     private Runnable checkRunnable;
+    private Runnable syncRunnable;
+    private ExecutorService syncExecutor;
     private List<PrayerScheduleItem> prayerSchedule = new ArrayList<>();
     private List<String> triggeredToday = new ArrayList<>();
 
@@ -38,21 +48,30 @@ public class PrayerOverlayService extends Service {
         super.onCreate();
         createNotificationChannel();
         handler = new Handler(Looper.getMainLooper());
+        syncExecutor = Executors.newSingleThreadExecutor();
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
-        if (intent != null) {
+        if (intent == null) {
+            // Restarted by the system after being killed - JS may not be running,
+            // so resume from the on-disk schedule cache and refresh it natively
+            startForeground(NOTIFICATION_ID, createNotification());
+            loadCachedSchedule();
+            startMonitoring();
+        } else {
             String action = intent.getAction();
 
             if ("START_MONITORING".equals(action)) {
                 String scheduleJson = intent.getStringExtra("prayerSchedule");
                 parsePrayerSchedule(scheduleJson);
+                cacheSchedule(scheduleJson);
                 startForeground(NOTIFICATION_ID, createNotification());
                 startMonitoring();
             } else if ("UPDATE_SCHEDULE".equals(action)) {
                 String scheduleJson = intent.getStringExtra("prayerSchedule");
                 parsePrayerSchedule(scheduleJson);
+                cacheSchedule(scheduleJson);
             }
         }
 
@@ -89,6 +108,13 @@ public class PrayerOverlayService extends Service {
      * Start monitoring prayer times
      */
     private void startMonitoring() {
+        if (checkRunnable != null) {
+            handler.removeCallbacks(checkRunnable);
+        }
+        if (syncRunnable != null) {
+            handler.removeCallbacks(syncRunnable);
+        }
+
         checkRunnable = new Runnable() {
             @Override
             public void run() {
@@ -97,12 +123,89 @@ public class PrayerOverlayService extends Service {
             }
         };
         handler.post(checkRunnable);
+
+        syncRunnable = new Runnable() {
+            @Override
+            public void run() {
+                syncSchedule();
+                handler.postDelayed(this, SYNC_INTERVAL);
+            }
+        };
+        handler.post(syncRunnable);
+    }
+
+    /**
+     * Load the last synced schedule from disk
+     */
+    private void loadCachedSchedule() {
+        parsePrayerSchedule(PrayerSyncConfig.createClient(this).getCachedScheduleJson());
+    }
+
+    /**
+     * Write a schedule pushed from JS to the disk cache
+     */
+    private void cacheSchedule(final String scheduleJson) {
+        if (scheduleJson == null) {
+            return;
+        }
+        syncExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                PrayerSyncConfig.createClient(PrayerOverlayService.this)
+                    .replaceCachedSchedule(scheduleJson);
+            }
+        });
+    }
+
+    /**
+     * Upload queued session results and fetch schedule changes off the main thread
+     * The in-memory schedule is only replaced when the delta actually changed something
+     * On a 401 the token is marked expired and syncing pauses until JS pushes a new one
+     */
+    private void syncSchedule() {
+        syncExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                PrayerScheduleSyncClient client = PrayerSyncConfig.createClient(PrayerOverlayService.this);
+                if (!client.isConfigured()) {
+                    return;
+                }
+
+                try {
+                    client.flushSessionQueue();
+                } catch (PrayerScheduleSyncClient.AuthExpiredException e) {
+                    PrayerSyncConfig.markTokenExpired(PrayerOverlayService.this, client.getAccessToken());
+                    return;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+
+                try {
+                    if (client.syncSchedule()) {
+                        final String scheduleJson = client.getCachedScheduleJson();
+                        handler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                parsePrayerSchedule(scheduleJson);
+                            }
+                        });
+                    }
+                } catch (PrayerScheduleSyncClient.AuthExpiredException e) {
+                    PrayerSyncConfig.markTokenExpired(PrayerOverlayService.this, client.getAccessToken());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
     }
 
     /**
      * Check if it's time for any prayer
      */
     private void checkPrayerTimes() {
+        long checkStart = PrayerTrace.beginSection("PrayerService.checkPrayerTimes");
+        int traceId = PrayerTrace.NO_TRACE_ID;
+
         Calendar now = Calendar.getInstance();
         int currentHour = now.get(Calendar.HOUR_OF_DAY);
         int currentMinute = now.get(Calendar.MINUTE);
@@ -121,25 +224,51 @@ public class PrayerOverlayService extends Service {
                 // Only trigger once per day
                 if (!triggeredToday.contains(todayKey)) {
                     triggeredToday.add(todayKey);
-                    showPrayerOverlay(item);
+                    traceId = PrayerTrace.newTraceId();
+                    showPrayerOverlay(item, now, traceId);
                 }
             }
         }
+
+        // Only kept in the in-app timeline when this check fired a trigger
+        PrayerTrace.endSection("PrayerService.checkPrayerTimes", traceId, checkStart);
     }
 
     /**
      * Show prayer overlay activity
+     * Starts the trigger's async slice, which the activity ends once the overlay is drawn
+     * A launch that throws cancels the slice; one blocked silently is dropped by its timeout
      */
-    private void showPrayerOverlay(PrayerScheduleItem item) {
-        Intent intent = new Intent(this, PrayerOverlayActivity.class);
-        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
-                       Intent.FLAG_ACTIVITY_CLEAR_TOP |
-                       Intent.FLAG_ACTIVITY_SINGLE_TOP);
-        intent.putExtra("prayerName", item.name);
-        intent.putExtra("duration", item.duration);
-        intent.putExtra("scheduleId", item.id);
-
-        startActivity(intent);
+    private void showPrayerOverlay(PrayerScheduleItem item, Calendar now, int traceId) {
+        JSONObject traceArgs = new JSONObject();
+        try {
+            traceArgs.put("scheduleId", item.id);
+            traceArgs.put("scheduledTime", item.time);
+            // How far into the scheduled minute the polling check caught this prayer
+            traceArgs.put("lateByMs", now.get(Calendar.SECOND) * 1000 + now.get(Calendar.MILLISECOND));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        PrayerTrace.beginTrigger(traceId, traceArgs);
+
+        long start = PrayerTrace.beginSection("PrayerService.startActivity");
+        try {
+            Intent intent = new Intent(this, PrayerOverlayActivity.class);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK |
+                           Intent.FLAG_ACTIVITY_CLEAR_TOP |
+                           Intent.FLAG_ACTIVITY_SINGLE_TOP);
+            intent.putExtra("prayerName", item.name);
+            intent.putExtra("duration", item.duration);
+            intent.putExtra("scheduleId", item.id);
+            intent.putExtra(PrayerTrace.EXTRA_TRACE_ID, traceId);
+
+            startActivity(intent);
+        } catch (RuntimeException e) {
+            PrayerTrace.cancelTrigger(traceId, "launch_failed");
+            throw e;
+        } finally {
+            PrayerTrace.endSection("PrayerService.startActivity", traceId, start);
+        }
     }
 
     /**
@@ -202,6 +331,12 @@ public class PrayerOverlayService extends Service {
         if (handler != null && checkRunnable != null) {
             handler.removeCallbacks(checkRunnable);
         }
+        if (handler != null && syncRunnable != null) {
+            handler.removeCallbacks(syncRunnable);
+        }
+        if (syncExecutor != null) {
+            syncExecutor.shutdown();
+        }
     }
 
     @Override
@@ -0,0 +1,606 @@
+package com.sacred.app.prayer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Native client for the Supabase prayer schedule
+ * Lets the monitoring service refresh its schedule and upload session results without JS
+ *
+ * Schedule refreshes are delta fetches: only rows with updated_at past the cached cursor
+ * are requested, and If-None-Match is sent whenever the server handed out an ETag.
+ * The merged schedule is cached on disk so a restarted service can resume from it.
+ * Session results recorded while JS is not running are queued on disk and uploaded in batches,
+ * along with the user_stats update the JS path would have made.
+ *
+ * Credentials and the cache directory are passed in (see PrayerSyncConfig for the Android side),
+ * so the client only needs org.json and runs against a local mock HTTP server in
+ * test/PrayerScheduleSyncClientTest.java.
+ */
+public class PrayerScheduleSyncClient {
+    private static final String SCHEDULE_FILE = "schedule_cache.json";
+    private static final String QUEUE_FILE = "session_queue.json";
+
+    private static final int UPLOAD_BATCH_SIZE = 50;
+    private static final int CONNECT_TIMEOUT = 10000;
+    private static final int READ_TIMEOUT = 15000;
+
+    // The activity, module and service each build their own client, so the cache files
+    // need process-wide locks rather than per-instance synchronization
+    private static final Object QUEUE_LOCK = new Object();
+    private static final Object SCHEDULE_LOCK = new Object();
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final String accessToken;
+    private final String userId;
+    private final File scheduleFile;
+    private final File queueFile;
+
+    public PrayerScheduleSyncClient(String baseUrl, String apiKey, String accessToken,
+                                    String userId, File cacheDir) {
+        this.baseUrl = baseUrl != null && baseUrl.endsWith("/")
+            ? baseUrl.substring(0, baseUrl.length() - 1)
+            : baseUrl;
+        this.apiKey = apiKey;
+        this.accessToken = accessToken;
+        this.userId = userId;
+        this.scheduleFile = new File(cacheDir, SCHEDULE_FILE);
+        this.queueFile = new File(cacheDir, QUEUE_FILE);
+    }
+
+    /**
+     * Delete the cached schedule in the given directory (e.g. on sign out)
+     * A sync already in flight may rewrite the cache, but it is tagged with the old user id
+     * and ignored by the next user's client
+     */
+    static void clearScheduleCache(File cacheDir) {
+        synchronized (SCHEDULE_LOCK) {
+            new File(cacheDir, SCHEDULE_FILE).delete();
+        }
+    }
+
+    String getAccessToken() {
+        return accessToken;
+    }
+
+    public boolean isConfigured() {
+        return baseUrl != null && apiKey != null && accessToken != null && userId != null;
+    }
+
+    // ===========================
+    // Schedule sync
+    // ===========================
+
+    /**
+     * Fetch schedule changes since the last sync and merge them into the disk cache
+     * Returns true if the cached schedule changed
+     *
+     * Network calls run without the lock; the fetched delta is merged into a fresh read
+     * of the cache so a schedule pushed from JS in the meantime isn't lost
+     */
+    public boolean syncSchedule() throws IOException, JSONException {
+        if (!isConfigured()) {
+            return false;
+        }
+
+        JSONObject snapshot;
+        synchronized (SCHEDULE_LOCK) {
+            snapshot = readScheduleCache();
+        }
+        String cursor = snapshot.optString("cursor", null);
+        int revision = snapshot.optInt("revision", 0);
+
+        // Delta fetch: rows updated since the cursor
+        String deltaPath = "/rest/v1/prayer_schedule"
+            + "?select=id,name,time,duration,enabled,updated_at"
+            + "&user_id=eq." + encode(userId)
+            + (cursor != null ? "&updated_at=gt." + encode(cursor) : "")
+            + "&order=updated_at.asc";
+        Response delta = request("GET", deltaPath, null, snapshot.optString("etag", null), null);
+        if (delta.code != HttpURLConnection.HTTP_OK && delta.code != HttpURLConnection.HTTP_NOT_MODIFIED) {
+            throw new IOException("Schedule delta fetch failed: HTTP " + delta.code);
+        }
+
+        // Deletions don't show up in an updated_at delta, so reconcile against the id list
+        String idsPath = "/rest/v1/prayer_schedule?select=id&user_id=eq." + encode(userId);
+        Response ids = request("GET", idsPath, null, snapshot.optString("idsEtag", null), null);
+        if (ids.code != HttpURLConnection.HTTP_OK && ids.code != HttpURLConnection.HTTP_NOT_MODIFIED) {
+            throw new IOException("Schedule id fetch failed: HTTP " + ids.code);
+        }
+
+        synchronized (SCHEDULE_LOCK) {
+            JSONObject cache = readScheduleCache();
+            JSONObject byId = cache.optJSONObject("rows");
+            if (byId == null) {
+                byId = new JSONObject();
+            }
+            boolean changed = false;
+            // If JS replaced the rows mid-sync, merge what was fetched but keep the cursor and
+            // ETags cleared so the next sync still checks the full set
+            boolean current = cache.optInt("revision", 0) == revision;
+
+            if (delta.code == HttpURLConnection.HTTP_OK) {
+                JSONArray rows = new JSONArray(delta.body);
+                for (int i = 0; i < rows.length(); i++) {
+                    JSONObject row = rows.getJSONObject(i);
+                    byId.put(row.getString("id"), normalizeRow(row));
+
+                    String updatedAt = row.optString("updated_at", null);
+                    if (updatedAt != null && (cursor == null || updatedAt.compareTo(cursor) > 0)) {
+                        cursor = updatedAt;
+                    }
+                }
+
+                if (current) {
+                    cache.put("cursor", cursor);
+                    cache.put("etag", delta.etag);
+                }
+                changed = rows.length() > 0;
+            }
+
+            if (ids.code == HttpURLConnection.HTTP_OK) {
+                JSONArray idRows = new JSONArray(ids.body);
+                Set<String> liveIds = new HashSet<>();
+                for (int i = 0; i < idRows.length(); i++) {
+                    liveIds.add(idRows.getJSONObject(i).getString("id"));
+                }
+
+                JSONArray cachedIds = byId.names();
+                for (int i = 0; cachedIds != null && i < cachedIds.length(); i++) {
+                    String id = cachedIds.getString(i);
+                    if (!liveIds.contains(id)) {
+                        byId.remove(id);
+                        changed = true;
+                    }
+                }
+                if (current) {
+                    cache.put("idsEtag", ids.etag);
+                }
+            }
+
+            cache.put("rows", byId);
+            writeFileAtomically(scheduleFile, cache.toString());
+            return changed;
+        }
+    }
+
+    /**
+     * Cached schedule in the same JSON array shape JS passes to the service
+     */
+    public String getCachedScheduleJson() {
+        JSONArray schedule = new JSONArray();
+        try {
+            JSONObject cache;
+            synchronized (SCHEDULE_LOCK) {
+                cache = readScheduleCache();
+            }
+            JSONObject byId = cache.optJSONObject("rows");
+            JSONArray ids = byId != null ? byId.names() : null;
+            for (int i = 0; ids != null && i < ids.length(); i++) {
+                schedule.put(byId.getJSONObject(ids.getString(i)));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return schedule.toString();
+    }
+
+    /**
+     * Replace the cached rows with a schedule pushed from JS
+     * JS may push rows the server doesn't have (local defaults, an edit whose write failed),
+     * so the cursor and ETags are dropped and the next sync re-checks the full set
+     */
+    public void replaceCachedSchedule(String scheduleJson) {
+        try {
+            JSONArray items = new JSONArray(scheduleJson);
+            JSONObject byId = new JSONObject();
+            for (int i = 0; i < items.length(); i++) {
+                JSONObject item = items.getJSONObject(i);
+                byId.put(item.getString("id"), normalizeRow(item));
+            }
+
+            synchronized (SCHEDULE_LOCK) {
+                JSONObject cache = readScheduleCache();
+                cache.put("rows", byId);
+                cache.remove("cursor");
+                cache.remove("etag");
+                cache.remove("idsEtag");
+                // Lets a sync that was already in flight see its cursor and ETags are stale
+                cache.put("revision", cache.optInt("revision", 0) + 1);
+                writeFileAtomically(scheduleFile, cache.toString());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private JSONObject normalizeRow(JSONObject row) throws JSONException {
+        JSONObject item = new JSONObject();
+        item.put("id", row.getString("id"));
+        item.put("name", row.optString("name", "Prayer Time"));
+        item.put("time", row.getString("time"));
+        item.put("duration", row.optInt("duration", 5));
+        item.put("enabled", row.optBoolean("enabled", true));
+        return item;
+    }
+
+    /**
+     * Read the schedule cache, starting fresh if it belongs to a different user
+     * A stale cursor from another account would make the delta skip this user's older rows
+     */
+    private JSONObject readScheduleCache() {
+        try {
+            String contents = readFile(scheduleFile);
+            if (contents != null) {
+                JSONObject cache = new JSONObject(contents);
+                String cachedUserId = cache.optString("userId", null);
+                if (userId == null ? cachedUserId == null : userId.equals(cachedUserId)) {
+                    return cache;
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        JSONObject cache = new JSONObject();
+        try {
+            cache.put("userId", userId);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return cache;
+    }
+
+    // ===========================
+    // Offline session queue
+    // ===========================
+
+    /**
+     * Queue a finished prayer session for upload
+     * Each entry gets a client-side id so a retried batch can't insert duplicates
+     */
+    public boolean queueSessionResult(String scheduleId, long startedAtMillis,
+                                      long completedAtMillis, int duration, boolean completed) {
+        return queueSessionResult(null, scheduleId, startedAtMillis, completedAtMillis, duration, completed);
+    }
+
+    /**
+     * Queue a session that may already be inserted
+     * Pass the existing session id when the insert succeeded but the stats call didn't,
+     * so only the stats are retried; null queues a new session
+     * Returns false when no user is configured or the queue couldn't be written
+     */
+    public boolean queueSessionResult(String existingSessionId, String scheduleId, long startedAtMillis,
+                                      long completedAtMillis, int duration, boolean completed) {
+        if (userId == null) {
+            return false;
+        }
+
+        try {
+            JSONObject session = new JSONObject();
+            session.put("id", existingSessionId != null ? existingSessionId : UUID.randomUUID().toString());
+            if (existingSessionId != null) {
+                session.put("uploaded", true);
+            }
+            session.put("user_id", userId);
+            session.put("started_at", formatTimestamp(startedAtMillis));
+            session.put("completed_at", completed ? formatTimestamp(completedAtMillis) : JSONObject.NULL);
+            session.put("duration", duration);
+            session.put("triggered_by", scheduleId);
+            session.put("completed", completed);
+            session.put("mode", "silent");
+
+            synchronized (QUEUE_LOCK) {
+                JSONArray queue = readQueue();
+                queue.put(session);
+                writeFileAtomically(queueFile, queue.toString());
+            }
+            return true;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Upload queued sessions for the configured user in batches
+     * Returns the number of sessions fully processed; stops at the first failure
+     *
+     * Mirrors the JS onPrayerCompleted path: each session is inserted, then the
+     * update_stats_after_prayer RPC applies it to user_stats. Inserted sessions are marked in
+     * the queue so a retry after a failed stats call doesn't insert them again.
+     *
+     * Inserts are idempotent, stats are at-least-once: processed sessions are removed with one
+     * queue rewrite per batch (or at the first stats failure), so a crash between a successful
+     * RPC and that rewrite applies the session's stats again on the next flush.
+     *
+     * The lock is only held while reading or rewriting the file, never across network calls,
+     * so sessions queued during an upload are kept
+     */
+    public int flushSessionQueue() throws IOException, JSONException {
+        if (!isConfigured()) {
+            return 0;
+        }
+
+        JSONArray pending = new JSONArray();
+        synchronized (QUEUE_LOCK) {
+            JSONArray queue = readQueue();
+            for (int i = 0; i < queue.length(); i++) {
+                JSONObject session = queue.getJSONObject(i);
+                if (userId.equals(session.optString("user_id"))) {
+                    pending.put(session);
+                }
+            }
+        }
+
+        int processed = 0;
+        for (int start = 0; start < pending.length(); start += UPLOAD_BATCH_SIZE) {
+            int end = Math.min(start + UPLOAD_BATCH_SIZE, pending.length());
+
+            JSONArray batch = new JSONArray();
+            Set<String> batchIds = new HashSet<>();
+            for (int i = start; i < end; i++) {
+                JSONObject session = pending.getJSONObject(i);
+                if (!session.optBoolean("uploaded", false)) {
+                    batch.put(toSessionRow(session));
+                    batchIds.add(session.getString("id"));
+                }
+            }
+
+            if (batch.length() > 0) {
+                Response response = request(
+                    "POST",
+                    "/rest/v1/prayer_sessions?on_conflict=id",
+                    batch.toString(),
+                    null,
+                    "return=minimal,resolution=ignore-duplicates"
+                );
+                if (response.code < 200 || response.code >= 300) {
+                    throw new IOException("Session upload failed: HTTP " + response.code);
+                }
+                markUploaded(batchIds);
+            }
+
+            Set<String> done = new HashSet<>();
+            try {
+                for (int i = start; i < end; i++) {
+                    JSONObject session = pending.getJSONObject(i);
+                    if (session.optBoolean("completed", false)) {
+                        updateStats(session);
+                    }
+                    done.add(session.getString("id"));
+                }
+            } finally {
+                if (!done.isEmpty()) {
+                    removeFromQueue(done);
+                }
+            }
+            processed += done.size();
+        }
+
+        return processed;
+    }
+
+    /**
+     * Apply one completed session to user_stats, as updateUserStatsAfterPrayer does in JS
+     */
+    private void updateStats(JSONObject session) throws IOException, JSONException {
+        JSONObject params = new JSONObject();
+        params.put("p_user_id", session.getString("user_id"));
+        params.put("p_duration", session.getInt("duration"));
+        params.put("p_completed_at", session.getString("completed_at"));
+
+        Response response = request(
+            "POST",
+            "/rest/v1/rpc/update_stats_after_prayer",
+            params.toString(),
+            null,
+            null
+        );
+        if (response.code < 200 || response.code >= 300) {
+            throw new IOException("Stats update failed: HTTP " + response.code);
+        }
+    }
+
+    /**
+     * Queue entries carry local bookkeeping fields; strip them down to prayer_sessions columns
+     */
+    private static JSONObject toSessionRow(JSONObject session) throws JSONException {
+        JSONObject row = new JSONObject(session.toString());
+        row.remove("uploaded");
+        return row;
+    }
+
+    public int getQueuedSessionCount() {
+        synchronized (QUEUE_LOCK) {
+            return readQueue().length();
+        }
+    }
+
+    /**
+     * Flag sessions whose insert succeeded so retries only redo the stats call
+     */
+    private void markUploaded(Set<String> ids) throws IOException, JSONException {
+        synchronized (QUEUE_LOCK) {
+            JSONArray queue = readQueue();
+            for (int i = 0; i < queue.length(); i++) {
+                JSONObject session = queue.getJSONObject(i);
+                if (ids.contains(session.optString("id"))) {
+                    session.put("uploaded", true);
+                }
+            }
+            writeFileAtomically(queueFile, queue.toString());
+        }
+    }
+
+    /**
+     * Drop processed sessions from the queue file, keeping anything queued since the snapshot
+     */
+    private void removeFromQueue(Set<String> ids) throws IOException, JSONException {
+        synchronized (QUEUE_LOCK) {
+            JSONArray queue = readQueue();
+            JSONArray remaining = new JSONArray();
+            for (int i = 0; i < queue.length(); i++) {
+                JSONObject session = queue.getJSONObject(i);
+                if (!ids.contains(session.optString("id"))) {
+                    remaining.put(session);
+                }
+            }
+            writeFileAtomically(queueFile, remaining.toString());
+        }
+    }
+
+    private JSONArray readQueue() {
+        try {
+            String contents = readFile(queueFile);
+            if (contents != null) {
+                return new JSONArray(contents);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return new JSONArray();
+    }
+
+    private static String formatTimestamp(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(millis));
+    }
+
+    // ===========================
+    // HTTP + file helpers
+    // ===========================
+
+    private Response request(String method, String path, String body, String etag,
+                             String prefer) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        try {
+            connection.setRequestMethod(method);
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setUseCaches(false);
+            connection.setRequestProperty("apikey", apiKey);
+            connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+            connection.setRequestProperty("Accept", "application/json");
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (prefer != null) {
+                connection.setRequestProperty("Prefer", prefer);
+            }
+
+            if (body != null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setFixedLengthStreamingMode(bytes.length);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(bytes);
+                }
+            }
+
+            Response response = new Response();
+            response.code = connection.getResponseCode();
+            if (response.code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                throw new AuthExpiredException(method + " " + path);
+            }
+            response.etag = connection.getHeaderField("ETag");
+            InputStream in = response.code >= 400
+                ? connection.getErrorStream()
+                : connection.getInputStream();
+            if (in != null) {
+                try {
+                    response.body = readStream(in);
+                } finally {
+                    in.close();
+                }
+            }
+            return response;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static String readStream(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String readFile(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            return readStream(in);
+        }
+    }
+
+    /**
+     * Write via a temp file and rename so a crash never leaves a half-written cache
+     */
+    private static void writeFileAtomically(File file, String contents) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(contents.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file.getName());
+        }
+    }
+
+    /**
+     * Thrown on HTTP 401: the access token JS last pushed has expired or been revoked
+     * Retrying can't help until JS provides a new one
+     */
+    public static class AuthExpiredException extends IOException {
+        AuthExpiredException(String request) {
+            super("Access token rejected: " + request);
+        }
+    }
+
+    /**
+     * Minimal HTTP response holder
+     */
+    static class Response {
+        int code;
+        String etag;
+        String body;
+    }
+}
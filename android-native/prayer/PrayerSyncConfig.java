@@ -0,0 +1,90 @@
+package com.sacred.app.prayer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.io.File;
+
+/**
+ * Android-side storage for native sync credentials
+ * JS saves them via the module; the service and activity build clients from them
+ */
+public final class PrayerSyncConfig {
+    private static final String PREFS_NAME = "PrayerSyncPrefs";
+    private static final String PREF_BASE_URL = "supabaseUrl";
+    private static final String PREF_API_KEY = "supabaseAnonKey";
+    private static final String PREF_ACCESS_TOKEN = "accessToken";
+    private static final String PREF_USER_ID = "userId";
+    private static final String PREF_EXPIRED_TOKEN = "expiredAccessToken";
+
+    private static final String SYNC_DIR = "prayer_sync";
+
+    private PrayerSyncConfig() {
+    }
+
+    /**
+     * Build a client from the credentials last saved by JS
+     * A token the server already rejected is left out, so the client reports itself
+     * unconfigured and skips network calls until JS saves a new one
+     */
+    public static PrayerScheduleSyncClient createClient(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String accessToken = prefs.getString(PREF_ACCESS_TOKEN, null);
+        if (accessToken != null && accessToken.equals(prefs.getString(PREF_EXPIRED_TOKEN, null))) {
+            accessToken = null;
+        }
+
+        return new PrayerScheduleSyncClient(
+            prefs.getString(PREF_BASE_URL, null),
+            prefs.getString(PREF_API_KEY, null),
+            accessToken,
+            prefs.getString(PREF_USER_ID, null),
+            getSyncDir(context)
+        );
+    }
+
+    /**
+     * Persist credentials so the service can sync after a restart without JS
+     */
+    public static void save(Context context, String baseUrl, String apiKey,
+                            String accessToken, String userId) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(PREF_BASE_URL, baseUrl)
+            .putString(PREF_API_KEY, apiKey)
+            .putString(PREF_ACCESS_TOKEN, accessToken)
+            .putString(PREF_USER_ID, userId)
+            .apply();
+    }
+
+    /**
+     * Remember that the server rejected this token (HTTP 401)
+     * Keyed on the token itself, so a newer token saved by JS in the meantime stays usable
+     */
+    public static void markTokenExpired(Context context, String accessToken) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(PREF_EXPIRED_TOKEN, accessToken)
+            .apply();
+    }
+
+    /**
+     * Forget credentials and the cached schedule (e.g. on sign out)
+     * Queued sessions are kept; they are only uploaded for the user that recorded them
+     */
+    public static void clear(Context context) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .clear()
+            .apply();
+        PrayerScheduleSyncClient.clearScheduleCache(getSyncDir(context));
+    }
+
+    private static File getSyncDir(Context context) {
+        File dir = new File(context.getFilesDir(), SYNC_DIR);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,278 @@
+package com.sacred.app.prayer;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trace instrumentation for the trigger-to-prayer pipeline
+ * Emits android.os.Trace sections for systrace/Perfetto and keeps an in-app copy of the
+ * same events so a per-trigger timeline can be exported without a tracing session
+ *
+ * Every event carries the trigger's trace id, which is passed along in the overlay intent
+ * so service, activity and module events line up on one timeline.
+ * Exports use the Chrome trace event JSON format, which Perfetto UI opens directly.
+ */
+public final class PrayerTrace {
+    public static final String EXTRA_TRACE_ID = "traceId";
+    public static final int NO_TRACE_ID = 0;
+
+    private static final int MAX_EVENTS = 2000;
+    private static final String CATEGORY = "prayer";
+    private static final String TRIGGER = "PrayerTrigger";
+    private static final int TRIGGER_TIMEOUT = 30000; // Overlay not drawn after 30 seconds means the launch was blocked
+    private static final String COLD_START = "openMainApp.coldStart";
+    private static final int COLD_START_TIMEOUT = 60000; // Give up on a React instance after 60 seconds
+
+    private static final AtomicInteger nextTraceId = new AtomicInteger(1);
+    private static final ArrayDeque<Event> events = new ArrayDeque<>();
+
+    // Trigger slices started but not yet ended by the overlay's first draw
+    private static final Set<Integer> pendingTriggers = ConcurrentHashMap.newKeySet();
+
+    // Trace id waiting for the main app's React instance to come up after openMainApp
+    private static final AtomicInteger pendingColdStartTraceId = new AtomicInteger(NO_TRACE_ID);
+
+    private PrayerTrace() {
+    }
+
+    /**
+     * Allocate a correlation id for a new prayer trigger
+     */
+    public static int newTraceId() {
+        return nextTraceId.getAndIncrement();
+    }
+
+    /**
+     * Begin a synchronous section; must be ended on the same thread
+     * Returns the start timestamp to hand back to endSection
+     */
+    public static long beginSection(String name) {
+        Trace.beginSection(name);
+        return nowMicros();
+    }
+
+    /**
+     * End a synchronous section
+     * Only recorded in-app when it belongs to a trigger, so idle schedule checks don't fill the buffer
+     */
+    public static void endSection(String name, int traceId, long startMicros) {
+        Trace.endSection();
+        if (traceId != NO_TRACE_ID) {
+            record("X", name, traceId, null, startMicros, nowMicros() - startMicros);
+        }
+    }
+
+    /**
+     * Begin an async slice, which may end on another thread or component
+     */
+    public static void beginAsync(String name, int traceId, JSONObject args) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, traceId);
+        }
+        record("b", name, traceId, args);
+    }
+
+    public static void endAsync(String name, int traceId) {
+        endAsync(name, traceId, null);
+    }
+
+    public static void endAsync(String name, int traceId, JSONObject args) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(name, traceId);
+        }
+        record("e", name, traceId, args);
+    }
+
+    /**
+     * Start the trigger slice before launching the overlay activity
+     * Dropped after a timeout so a launch blocked by background-start limits doesn't stay open
+     */
+    public static void beginTrigger(final int traceId, JSONObject args) {
+        pendingTriggers.add(traceId);
+        beginAsync(TRIGGER, traceId, args);
+
+        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                cancelTrigger(traceId, "timed_out");
+            }
+        }, TRIGGER_TIMEOUT);
+    }
+
+    /**
+     * End the trigger slice once the overlay is drawn
+     */
+    public static void endTrigger(int traceId) {
+        if (pendingTriggers.remove(traceId)) {
+            endAsync(TRIGGER, traceId);
+        }
+    }
+
+    /**
+     * Close the trigger slice without an overlay, e.g. when startActivity threw
+     */
+    public static void cancelTrigger(int traceId, String reason) {
+        if (pendingTriggers.remove(traceId)) {
+            endAsync(TRIGGER, traceId, outcome(reason));
+        }
+    }
+
+    /**
+     * Start the cold-start slice when openMainApp has to launch a fresh React instance
+     * Dropped after a timeout so a much later, unrelated module init can't close it
+     */
+    public static void beginColdStart(final int traceId) {
+        if (traceId == NO_TRACE_ID) {
+            return;
+        }
+
+        int previous = pendingColdStartTraceId.getAndSet(traceId);
+        if (previous != NO_TRACE_ID) {
+            endAsync(COLD_START, previous, outcome("superseded"));
+        }
+        beginAsync(COLD_START, traceId, null);
+
+        new Handler(Looper.getMainLooper()).postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                cancelColdStart(traceId, "timed_out");
+            }
+        }, COLD_START_TIMEOUT);
+    }
+
+    /**
+     * End the pending cold-start slice, if any (called when the module is created)
+     */
+    public static void endColdStart() {
+        int traceId = pendingColdStartTraceId.getAndSet(NO_TRACE_ID);
+        if (traceId != NO_TRACE_ID) {
+            endAsync(COLD_START, traceId);
+        }
+    }
+
+    /**
+     * Close the cold-start slice without a React instance, e.g. when the launch failed
+     * The outcome arg marks it so it isn't read as a real cold start
+     */
+    public static void cancelColdStart(int traceId, String reason) {
+        if (pendingColdStartTraceId.compareAndSet(traceId, NO_TRACE_ID)) {
+            endAsync(COLD_START, traceId, outcome(reason));
+        }
+    }
+
+    private static JSONObject outcome(String reason) {
+        JSONObject args = new JSONObject();
+        try {
+            args.put("outcome", reason);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return args;
+    }
+
+    private static long nowMicros() {
+        return SystemClock.elapsedRealtimeNanos() / 1000;
+    }
+
+    private static void record(String phase, String name, int traceId, JSONObject args) {
+        record(phase, name, traceId, args, nowMicros(), 0);
+    }
+
+    private static void record(String phase, String name, int traceId, JSONObject args,
+                               long timestampMicros, long durationMicros) {
+        Event event = new Event();
+        event.phase = phase;
+        event.name = name;
+        event.traceId = traceId;
+        event.timestampMicros = timestampMicros;
+        event.durationMicros = durationMicros;
+        event.threadId = Process.myTid();
+        event.args = args;
+
+        synchronized (events) {
+            if (events.size() >= MAX_EVENTS) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    /**
+     * Export recorded events as Chrome trace event JSON
+     * Pass NO_TRACE_ID to export every trigger still in the buffer
+     */
+    public static String exportJson(int traceId) throws JSONException {
+        Event[] snapshot;
+        synchronized (events) {
+            snapshot = events.toArray(new Event[0]);
+        }
+
+        int pid = Process.myPid();
+        JSONArray traceEvents = new JSONArray();
+        for (Event event : snapshot) {
+            if (traceId != NO_TRACE_ID && event.traceId != traceId) {
+                continue;
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("name", event.name);
+            json.put("cat", CATEGORY);
+            json.put("ph", event.phase);
+            json.put("ts", event.timestampMicros);
+            json.put("pid", pid);
+            json.put("tid", event.threadId);
+            if ("X".equals(event.phase)) {
+                json.put("dur", event.durationMicros);
+            }
+            if ("b".equals(event.phase) || "e".equals(event.phase)) {
+                json.put("id", event.traceId);
+            }
+
+            JSONObject args = event.args != null ? new JSONObject(event.args.toString()) : new JSONObject();
+            args.put("traceId", event.traceId);
+            json.put("args", args);
+
+            traceEvents.put(json);
+        }
+
+        JSONObject root = new JSONObject();
+        root.put("traceEvents", traceEvents);
+        root.put("displayTimeUnit", "ms");
+        return root.toString();
+    }
+
+    /**
+     * Drop all recorded events
+     */
+    public static void clear() {
+        synchronized (events) {
+            events.clear();
+        }
+    }
+
+    /**
+     * Single recorded trace event
+     */
+    static class Event {
+        String phase;
+        String name;
+        int traceId;
+        long timestampMicros;
+        long durationMicros;
+        int threadId;
+        JSONObject args;
+    }
+}
@@ -0,0 +1,323 @@
+package com.sacred.app.prayer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * End-to-end test for PrayerScheduleSyncClient against a local mock PostgREST server
+ * Plain JVM program (no Android harness); run with test/run-sync-client-test.sh
+ */
+public class PrayerScheduleSyncClientTest {
+    private static final String USER_ID = "user-1";
+    private static final String EXPIRED_TOKEN = "expired";
+
+    private final Map<String, JSONObject> serverRows = new LinkedHashMap<>();
+    private final Set<String> insertedSessionIds = new HashSet<>();
+    private final List<String> deltaQueries = new ArrayList<>();
+    private int notModifiedCount = 0;
+    private int sessionPostCount = 0;
+    private int failSessionPostNumber = -1;
+    private int statsCallCount = 0;
+    private int failStatsCallNumber = -1;
+
+    public static void main(String[] args) throws Exception {
+        new PrayerScheduleSyncClientTest().run();
+        System.out.println("PrayerScheduleSyncClientTest: all checks passed");
+    }
+
+    private void run() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+
+        File cacheDir = Files.createTempDirectory("prayer-sync-test").toFile();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+        try {
+            PrayerScheduleSyncClient client =
+                new PrayerScheduleSyncClient(baseUrl, "anon-key", "token", USER_ID, cacheDir);
+
+            testInitialAndDeltaSync(client);
+            testNotModified(client);
+            testDeltaAndDeletionReconcile(client);
+            testJsPushIsReconciled(client);
+            testOtherUserStartsWithoutCursor(baseUrl, cacheDir);
+            testBatchUploadWithRetry(client);
+            testExpiredToken(baseUrl, cacheDir);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    // ===========================
+    // Scenarios
+    // ===========================
+
+    private void testInitialAndDeltaSync(PrayerScheduleSyncClient client) throws Exception {
+        putRow("a", "Morning Prayer", "07:00", "2026-01-01T00:00:00+00:00");
+        putRow("b", "Noon Prayer", "12:00", "2026-01-02T00:00:00+00:00");
+
+        check(client.syncSchedule(), "initial sync reports a change");
+        check(!lastDeltaQuery().contains("updated_at=gt."), "initial sync has no cursor");
+        check(new JSONArray(client.getCachedScheduleJson()).length() == 2, "initial sync caches both rows");
+    }
+
+    private void testNotModified(PrayerScheduleSyncClient client) throws Exception {
+        // First cursor query differs from the initial one, so only the id list can match
+        int before = notModifiedCount;
+        check(!client.syncSchedule(), "unchanged sync reports no change");
+        check(lastDeltaQuery().contains("updated_at=gt.2026-01-02T00:00:00+00:00"),
+            "delta sync sends the cursor from the newest row");
+        check(notModifiedCount == before + 1, "ETag from another query doesn't match the cursor query");
+
+        before = notModifiedCount;
+        check(!client.syncSchedule(), "repeated sync reports no change");
+        check(notModifiedCount == before + 2, "matching ETags get 304 for delta and id list");
+    }
+
+    private void testDeltaAndDeletionReconcile(PrayerScheduleSyncClient client) throws Exception {
+        putRow("a", "Morning Prayer", "06:30", "2026-01-03T00:00:00+00:00");
+        serverRows.remove("b");
+
+        check(client.syncSchedule(), "update + delete reports a change");
+
+        JSONArray cached = new JSONArray(client.getCachedScheduleJson());
+        check(cached.length() == 1, "deleted row is pruned from the cache");
+        check("06:30".equals(cached.getJSONObject(0).getString("time")), "updated row is merged");
+    }
+
+    private void testJsPushIsReconciled(PrayerScheduleSyncClient client) throws Exception {
+        // Local defaults plus an edit whose Supabase write never landed
+        JSONArray pushed = new JSONArray()
+            .put(new JSONObject().put("id", "1").put("name", "Morning Prayer").put("time", "07:00")
+                .put("duration", 5).put("enabled", true))
+            .put(new JSONObject().put("id", "a").put("name", "Morning Prayer").put("time", "08:15")
+                .put("duration", 5).put("enabled", true));
+        client.replaceCachedSchedule(pushed.toString());
+
+        client.syncSchedule();
+        check(!lastDeltaQuery().contains("updated_at=gt."), "sync after a JS push drops the cursor");
+
+        JSONArray cached = new JSONArray(client.getCachedScheduleJson());
+        check(cached.length() == 1, "row unknown to the server is removed after a JS push");
+        check("06:30".equals(cached.getJSONObject(0).getString("time")),
+            "unsynced local edit is corrected from the server");
+    }
+
+    private void testOtherUserStartsWithoutCursor(String baseUrl, File cacheDir) throws Exception {
+        PrayerScheduleSyncClient other =
+            new PrayerScheduleSyncClient(baseUrl, "anon-key", "token", "user-2", cacheDir);
+
+        check(new JSONArray(other.getCachedScheduleJson()).length() == 0,
+            "another user doesn't see the cached schedule");
+        other.syncSchedule();
+        check(!lastDeltaQuery().contains("updated_at=gt."), "another user starts without a cursor");
+    }
+
+    private void testBatchUploadWithRetry(PrayerScheduleSyncClient client) throws Exception {
+        for (int i = 0; i < 60; i++) {
+            client.queueSessionResult("a", 1000L * i, 1000L * i + 300000L, 5, true);
+        }
+        check(client.getQueuedSessionCount() == 60, "60 sessions queued");
+
+        // First batch (50) succeeds, second batch fails once
+        failSessionPostNumber = sessionPostCount + 2;
+        boolean failed = false;
+        try {
+            client.flushSessionQueue();
+        } catch (IOException e) {
+            failed = true;
+        }
+        check(failed, "failed batch surfaces an IOException");
+        check(insertedSessionIds.size() == 50, "first batch inserted");
+        check(statsCallCount == 50, "stats applied for the first batch");
+        check(client.getQueuedSessionCount() == 10, "failed batch stays queued");
+
+        check(client.flushSessionQueue() == 10, "retry uploads the remaining batch");
+        check(insertedSessionIds.size() == 60, "all sessions inserted exactly once");
+        check(statsCallCount == 60, "stats applied once per session");
+        check(client.getQueuedSessionCount() == 0, "queue drained");
+
+        // Stats call for the third of five sessions fails once
+        for (int i = 0; i < 5; i++) {
+            client.queueSessionResult("a", 1000L * i, 1000L * i + 300000L, 5, true);
+        }
+        failStatsCallNumber = statsCallCount + 3;
+        failed = false;
+        try {
+            client.flushSessionQueue();
+        } catch (IOException e) {
+            failed = true;
+        }
+        check(failed, "failed stats call surfaces an IOException");
+        check(client.getQueuedSessionCount() == 3, "sessions before the stats failure are removed");
+
+        check(client.flushSessionQueue() == 3, "retry finishes the remaining sessions");
+        check(insertedSessionIds.size() == 65, "stats retry doesn't insert sessions again");
+        check(statsCallCount == 66, "stats retried only for unfinished sessions");
+
+        // JS inserted the session but its stats call failed
+        client.queueSessionResult("js-session", "a", 0L, 300000L, 5, true);
+        check(client.flushSessionQueue() == 1, "session handed over by JS is processed");
+        check(!insertedSessionIds.contains("js-session"), "already inserted session isn't inserted again");
+        check(statsCallCount == 67, "stats applied for the session handed over by JS");
+    }
+
+    private void testExpiredToken(String baseUrl, File cacheDir) throws Exception {
+        PrayerScheduleSyncClient expired =
+            new PrayerScheduleSyncClient(baseUrl, "anon-key", EXPIRED_TOKEN, USER_ID, cacheDir);
+
+        boolean rejected = false;
+        try {
+            expired.syncSchedule();
+        } catch (PrayerScheduleSyncClient.AuthExpiredException e) {
+            rejected = true;
+        }
+        check(rejected, "401 surfaces as AuthExpiredException");
+    }
+
+    // ===========================
+    // Mock PostgREST
+    // ===========================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        query = query != null ? URLDecoder.decode(query, "UTF-8") : "";
+
+        try {
+            if (("Bearer " + EXPIRED_TOKEN).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, null, "{}");
+            } else if (path.equals("/rest/v1/prayer_schedule") && query.startsWith("select=id&")) {
+                JSONArray ids = new JSONArray();
+                for (String id : serverRows.keySet()) {
+                    ids.put(new JSONObject().put("id", id));
+                }
+                respondWithEtag(exchange, query, ids.toString());
+            } else if (path.equals("/rest/v1/prayer_schedule")) {
+                deltaQueries.add(query);
+                String cursor = param(query, "updated_at=gt.");
+                JSONArray rows = new JSONArray();
+                for (JSONObject row : serverRows.values()) {
+                    if (cursor == null || row.getString("updated_at").compareTo(cursor) > 0) {
+                        rows.put(row);
+                    }
+                }
+                respondWithEtag(exchange, query, rows.toString());
+            } else if (path.equals("/rest/v1/prayer_sessions")) {
+                sessionPostCount++;
+                JSONArray batch = new JSONArray(readBody(exchange));
+                if (sessionPostCount == failSessionPostNumber) {
+                    respond(exchange, 500, null, "{}");
+                    return;
+                }
+                for (int i = 0; i < batch.length(); i++) {
+                    insertedSessionIds.add(batch.getJSONObject(i).getString("id"));
+                }
+                respond(exchange, 201, null, null);
+            } else if (path.equals("/rest/v1/rpc/update_stats_after_prayer")) {
+                readBody(exchange);
+                statsCallCount++;
+                if (statsCallCount == failStatsCallNumber) {
+                    respond(exchange, 500, null, "{}");
+                    return;
+                }
+                respond(exchange, 204, null, null);
+            } else {
+                respond(exchange, 404, null, "{}");
+            }
+        } catch (Exception e) {
+            respond(exchange, 500, null, "{}");
+        }
+    }
+
+    // Like PostgREST, the ETag is specific to the query and its result
+    private void respondWithEtag(HttpExchange exchange, String query, String body) throws IOException {
+        String etag = "\"" + Integer.toHexString((query + "\n" + body).hashCode()) + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedCount++;
+            respond(exchange, 304, etag, null);
+        } else {
+            respond(exchange, 200, etag, body);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code, String etag, String body) throws IOException {
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        exchange.sendResponseHeaders(code, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String param(String query, String prefix) {
+        for (String part : query.split("&")) {
+            if (part.startsWith(prefix)) {
+                return part.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    // ===========================
+    // Helpers
+    // ===========================
+
+    private void putRow(String id, String name, String time, String updatedAt) throws Exception {
+        serverRows.put(id, new JSONObject()
+            .put("id", id)
+            .put("name", name)
+            .put("time", time)
+            .put("duration", 5)
+            .put("enabled", true)
+            .put("updated_at", updatedAt));
+    }
+
+    private String lastDeltaQuery() {
+        return deltaQueries.get(deltaQueries.size() - 1);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+        System.out.println("  ok - " + message);
+    }
+}
@@ -0,0 +1,21 @@
+#!/bin/sh
+# Runs PrayerScheduleSyncClientTest on the JVM against a local mock HTTP server.
+# Needs a JDK and the org.json jar (Android ships org.json, the JVM doesn't).
+# Set JSON_JAR to use an existing jar; otherwise it is fetched into ~/.m2 with Maven.
+set -e
+
+DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JSON_VERSION=20240303
+JSON_JAR="${JSON_JAR:-$HOME/.m2/repository/org/json/json/$JSON_VERSION/json-$JSON_VERSION.jar}"
+
+if [ ! -f "$JSON_JAR" ]; then
+  mvn -q dependency:get -Dartifact=org.json:json:$JSON_VERSION
+fi
+
+OUT="$(mktemp -d)"
+trap 'rm -rf "$OUT"' EXIT
+
+javac -d "$OUT" -cp "$JSON_JAR" \
+  "$DIR/PrayerScheduleSyncClient.java" \
+  "$DIR/test/PrayerScheduleSyncClientTest.java"
+java -cp "$OUT:$JSON_JAR" com.sacred.app.prayer.PrayerScheduleSyncClientTest
@@ -16,7 +16,12 @@ import {
   requestNotificationPermissions,
   syncPrayerScheduleItems,
 } from '@/services/notificationService';
-import { addPrayerCompletedListener, addPrayerDismissedListener } from '@/services/nativePrayerOverlay';
+import {
+  addPrayerCompletedListener,
+  addPrayerDismissedListener,
+  configureNativeSync,
+  queueNativePrayerSession,
+} from '@/services/nativePrayerOverlay';
 import { createPrayerSession, updateUserStatsAfterPrayer } from '@/lib/database';
 
 // Unified prayer interruption service (Android + iOS)
@@ -30,6 +35,7 @@ export default function RootLayout() {
   const router = useRouter();
   const initializeAuth = useAuthStore((state) => state.initializeAuth);
   const user = useAuthStore((state) => state.user);
+  const session = useAuthStore((state) => state.session);
   const { showLockScreen, isLockScreenVisible, hideLockScreen, currentScheduleName, currentDuration } = usePrayerStore();
   const { blockedApps, settings, loadPrayerSchedule } = useAppStore();
 
@@ -61,8 +67,9 @@ export default function RootLayout() {
       const duration = schedule?.duration ?? 5;
       const startedAt = new Date(now.getTime() - duration * 60 * 1000);
 
+      let sessionId: string | undefined;
       try {
-        await createPrayerSession(currentUser.id, {
+        const session = await createPrayerSession(currentUser.id, {
           startedAt,
           completedAt: now,
           duration,
@@ -71,10 +78,22 @@ export default function RootLayout() {
           mode: 'silent',
           tags: [],
         });
+        sessionId = session?.id;
         await updateUserStatsAfterPrayer(currentUser.id, duration, now);
         console.log('✅ Android prayer session saved');
       } catch (error) {
         console.error('Error saving Android prayer session:', error);
+        // Offline or failed write — let the native service upload it (stats only if already inserted)
+        const queued = await queueNativePrayerSession({
+          scheduleId,
+          startedAt,
+          completedAt: now,
+          duration,
+          sessionId,
+        });
+        if (queued) {
+          console.log('📥 Android prayer session queued for native upload');
+        }
       }
     });
 
@@ -137,6 +156,14 @@ export default function RootLayout() {
     loadSchedule();
   }, [user?.id]);
 
+  // Keep the native sync client's credentials current so the Android service
+  // can refresh the schedule and upload sessions without JS running
+  useEffect(() => {
+    if (session?.access_token && user?.id) {
+      configureNativeSync(session.access_token, user.id);
+    }
+  }, [session?.access_token, user?.id]);
+
   // Sync notifications and prayer interruption whenever prayer schedule changes
   useEffect(() => {
     const syncSchedules = async () => {
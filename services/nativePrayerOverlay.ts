@@ -9,10 +9,26 @@ interface PrayerOverlayModule {
     name: string;
     duration: number;
     scheduleId: string;
-  }): Promise<boolean>;
+  }): Promise<number>;
   startPrayerMonitoring(prayerSchedule: PrayerScheduleItem[]): Promise<boolean>;
   stopPrayerMonitoring(): Promise<boolean>;
   updatePrayerSchedule(prayerSchedule: PrayerScheduleItem[]): Promise<boolean>;
+  configureNativeSync(config: {
+    supabaseUrl: string;
+    supabaseAnonKey: string;
+    accessToken: string;
+    userId: string;
+  }): Promise<boolean>;
+  clearNativeSync(): Promise<boolean>;
+  queuePrayerSession(session: {
+    scheduleId: string;
+    startedAt: number;
+    completedAt: number;
+    duration: number;
+    sessionId?: string;
+  }): Promise<boolean>;
+  exportPrayerTrace(traceId: number): Promise<{ path: string; json: string }>;
+  clearPrayerTrace(): Promise<boolean>;
 }
 
 // iOS Screen Time module interface
@@ -101,15 +117,16 @@ export async function requestOverlayPermission(): Promise<boolean> {
 
 /**
  * Show prayer overlay immediately
+ * Returns the trigger's trace id (for exportPrayerTrace), or null if it wasn't shown
  */
 export async function showPrayerOverlay(
   name: string,
   duration: number,
   scheduleId: string
-): Promise<boolean> {
+): Promise<number | null> {
   if (Platform.OS !== 'android') {
     console.warn('Prayer overlay only supported on Android');
-    return false;
+    return null;
   }
 
   try {
@@ -120,7 +137,7 @@ export async function showPrayerOverlay(
     });
   } catch (error) {
     console.error('Error showing prayer overlay:', error);
-    return false;
+    return null;
   }
 }
 
@@ -184,11 +201,119 @@ export async function updatePrayerSchedule(
   }
 }
 
+/**
+ * Give the monitoring service Supabase credentials
+ * Lets it delta-sync the schedule and upload queued sessions when JS isn't running
+ */
+export async function configureNativeSync(
+  accessToken: string,
+  userId: string
+): Promise<boolean> {
+  if (Platform.OS !== 'android') {
+    return true;
+  }
+
+  try {
+    return await PrayerOverlay.configureNativeSync({
+      supabaseUrl: process.env.EXPO_PUBLIC_SUPABASE_URL || '',
+      supabaseAnonKey: process.env.EXPO_PUBLIC_SUPABASE_ANON_KEY || '',
+      accessToken,
+      userId,
+    });
+  } catch (error) {
+    console.error('Error configuring native sync:', error);
+    return false;
+  }
+}
+
+/**
+ * Clear native sync credentials (call on sign out)
+ */
+export async function clearNativeSync(): Promise<boolean> {
+  if (Platform.OS !== 'android') {
+    return true;
+  }
+
+  try {
+    return await PrayerOverlay.clearNativeSync();
+  } catch (error) {
+    console.error('Error clearing native sync:', error);
+    return false;
+  }
+}
+
+/**
+ * Hand a completed session that JS couldn't save (e.g. offline) to the native upload queue
+ * Pass sessionId when the session was inserted and only the stats update failed
+ */
+export async function queueNativePrayerSession(session: {
+  scheduleId: string;
+  startedAt: Date;
+  completedAt: Date;
+  duration: number;
+  sessionId?: string;
+}): Promise<boolean> {
+  if (Platform.OS !== 'android') {
+    return false;
+  }
+
+  try {
+    return await PrayerOverlay.queuePrayerSession({
+      scheduleId: session.scheduleId,
+      startedAt: session.startedAt.getTime(),
+      completedAt: session.completedAt.getTime(),
+      duration: session.duration,
+      ...(session.sessionId ? { sessionId: session.sessionId } : {}),
+    });
+  } catch (error) {
+    console.error('Error queueing native prayer session:', error);
+    return false;
+  }
+}
+
+/**
+ * Export the native trigger-to-prayer trace timeline
+ * Chrome trace event JSON; open the file in Perfetto UI (ui.perfetto.dev)
+ * Omit traceId to export every trigger still in the buffer
+ * Each export overwrites the same file; copy it elsewhere to keep it
+ */
+export async function exportPrayerTrace(
+  traceId: number = 0
+): Promise<{ path: string; json: string } | null> {
+  if (Platform.OS !== 'android') {
+    return null;
+  }
+
+  try {
+    return await PrayerOverlay.exportPrayerTrace(traceId);
+  } catch (error) {
+    console.error('Error exporting prayer trace:', error);
+    return null;
+  }
+}
+
+/**
+ * Clear recorded native trace events
+ */
+export async function clearPrayerTrace(): Promise<boolean> {
+  if (Platform.OS !== 'android') {
+    return true;
+  }
+
+  try {
+    return await PrayerOverlay.clearPrayerTrace();
+  } catch (error) {
+    console.error('Error clearing prayer trace:', error);
+    return false;
+  }
+}
+
 /**
  * Listen for prayer completed events
+ * traceId identifies the trigger's timeline in exportPrayerTrace
  */
 export function addPrayerCompletedListener(
-  callback: (scheduleId: string) => void
+  callback: (scheduleId: string, traceId: number) => void
 ): () => void {
   if (!prayerEventEmitter) {
     return () => {};
@@ -198,7 +323,7 @@ export function addPrayerCompletedListener(
     'onPrayerCompleted',
     (event) => {
       console.log('✅ Prayer completed:', event.scheduleId);
-      callback(event.scheduleId);
+      callback(event.scheduleId, event.traceId);
     }
   );
 
@@ -207,9 +332,10 @@ export function addPrayerCompletedListener(
 
 /**
  * Listen for prayer dismissed events
+ * traceId identifies the trigger's timeline in exportPrayerTrace
  */
 export function addPrayerDismissedListener(
-  callback: (scheduleId: string) => void
+  callback: (scheduleId: string, traceId: number) => void
 ): () => void {
   if (!prayerEventEmitter) {
     return () => {};
@@ -219,7 +345,7 @@ export function addPrayerDismissedListener(
     'onPrayerDismissed',
     (event) => {
       console.log('❌ Prayer dismissed:', event.scheduleId);
-      callback(event.scheduleId);
+      callback(event.scheduleId, event.traceId);
     }
   );
 
@@ -67,7 +67,7 @@ export async function showPrayerScreen(
     scheduleId: string
 ): Promise<boolean> {
     if (Platform.OS === 'android') {
-        return await showAndroidOverlay(name, duration, scheduleId);
+        return (await showAndroidOverlay(name, duration, scheduleId)) !== null;
     } else if (Platform.OS === 'ios') {
         // iOS: Apply shield immediately
         // Note: In production, you'd trigger the lock screen modal instead
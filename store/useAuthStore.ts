@@ -4,6 +4,7 @@ import { Session, User } from '@supabase/supabase-js';
 import { GoogleSignin } from '@react-native-google-signin/google-signin';
 import { Platform } from 'react-native';
 import * as AppleAuthentication from 'expo-apple-authentication';
+import { clearNativeSync } from '@/services/nativePrayerOverlay';
 
 // Configure Google Sign-In
 GoogleSignin.configure({
@@ -244,7 +245,13 @@ export const useAuthStore = create<AuthState>((set) => ({
     });
 
     // Listen to auth state changes
-    const { data: { subscription } } = supabase.auth.onAuthStateChange((_event, session) => {
+    const { data: { subscription } } = supabase.auth.onAuthStateChange((event, session) => {
+      // Covers explicit sign out as well as Supabase ending the session (revoked/expired),
+      // so the Android service stops syncing with the old user's credentials
+      if (event === 'SIGNED_OUT') {
+        clearNativeSync();
+      }
+
       set({
         user: session?.user ?? null,
         session: session,